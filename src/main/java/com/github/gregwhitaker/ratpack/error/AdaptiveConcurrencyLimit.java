@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that adapts to observed latency using additive-increase/multiplicative-decrease (AIMD).
+ *
+ * The limit grows by one for every window of requests, a window being as many requests as the current limit, that
+ * complete within the latency threshold while the server is at least half utilized. It shrinks by the backoff ratio
+ * when a request exceeds the threshold, at most once per window: requests admitted before the last backoff were
+ * already slowed down by the overload that caused it and are ignored. All state is updated with atomic operations,
+ * so admission and completion never block.
+ */
+final class AdaptiveConcurrencyLimit {
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final AtomicInteger onTime = new AtomicInteger();
+    private final AtomicLong lastBackoff = new AtomicLong(System.nanoTime());
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+
+    AdaptiveConcurrencyLimit(ErrorModule.Config config) {
+        this.minLimit = Math.max(1, config.getMinConcurrencyLimit());
+        this.maxLimit = Math.max(minLimit, config.getMaxConcurrencyLimit());
+        this.limit = new AtomicInteger(Math.max(minLimit, Math.min(maxLimit, config.getInitialConcurrencyLimit())));
+        this.latencyThresholdNanos = Math.max(1, config.getAdmissionLatencyThreshold().toNanos());
+    }
+
+    /**
+     * Attempts to admit a request.
+     *
+     * @return <code>true</code> if the request was admitted and {@link #release(long, long)} must be called when it
+     * completes; otherwise <code>false</code>
+     */
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    /**
+     * Records the completion of an admitted request and adjusts the limit.
+     *
+     * @param startNanos {@link System#nanoTime()} when the request was admitted
+     * @param endNanos {@link System#nanoTime()} when the request completed
+     */
+    void release(long startNanos, long endNanos) {
+        int current = inFlight.getAndDecrement();
+
+        if (endNanos - startNanos > latencyThresholdNanos) {
+            long backoff = lastBackoff.get();
+            if (startNanos - backoff >= 0 && lastBackoff.compareAndSet(backoff, endNanos)) {
+                onTime.set(0);
+                limit.updateAndGet(l -> Math.max(minLimit, (int) (l * BACKOFF_RATIO)));
+            }
+        } else if (current * 2 >= limit.get()) {
+            int count = onTime.incrementAndGet();
+            if (count >= limit.get() && onTime.compareAndSet(count, 0)) {
+                limit.updateAndGet(l -> Math.min(maxLimit, l + 1));
+            }
+        }
+    }
+
+    int getLimit() {
+        return limit.get();
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
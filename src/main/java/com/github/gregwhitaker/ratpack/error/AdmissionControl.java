@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import ratpack.handling.Context;
+import ratpack.handling.Handler;
+import ratpack.handling.HandlerDecorator;
+import ratpack.handling.Handlers;
+import ratpack.http.Response;
+import ratpack.registry.Registry;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Handler decorator that sheds load when the application is overloaded.
+ *
+ * Requests are admitted up to an {@link AdaptiveConcurrencyLimit}; excess requests are rejected immediately with a
+ * <code>503 Service Unavailable</code> error response and a <code>Retry-After</code> header. The rejection response
+ * is rendered once at startup and sent from a shared, read-only buffer, so rejecting a request costs almost nothing.
+ */
+class AdmissionControl implements HandlerDecorator {
+    private static final String CONTENT_TYPE = "text/plain;charset=UTF-8";
+
+    private final ErrorModule.Config config;
+    private final DefaultErrorHandler errorHandler;
+
+    @Inject
+    AdmissionControl(ErrorModule.Config config, DefaultErrorHandler errorHandler) {
+        this.config = config;
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public Handler decorate(Registry serverRegistry, Handler rest) throws Exception {
+        if (!config.isAdmissionControl()) {
+            return rest;
+        }
+
+        return Handlers.chain(new AdmissionHandler(config, errorHandler), rest);
+    }
+
+    /**
+     * Handler that admits or rejects each request.
+     */
+    private static class AdmissionHandler implements Handler {
+        private final AdaptiveConcurrencyLimit limit;
+        private final ByteBuf rejection;
+        private final String retryAfter;
+
+        AdmissionHandler(ErrorModule.Config config, DefaultErrorHandler errorHandler) throws Exception {
+            byte[] body = errorHandler.render(503, "The server is currently overloaded. Please try again later.").getBytes(StandardCharsets.UTF_8);
+
+            this.limit = new AdaptiveConcurrencyLimit(config);
+            this.rejection = Unpooled.unreleasableBuffer(Unpooled.directBuffer(body.length).writeBytes(body).asReadOnly());
+            this.retryAfter = Long.toString(Math.max(1, config.getRetryAfter().getSeconds()));
+        }
+
+        @Override
+        public void handle(Context context) throws Exception {
+            if (!limit.tryAcquire()) {
+                Response response = context.getResponse();
+                response.getHeaders().set("Retry-After", retryAfter);
+                response.status(503);
+                response.contentTypeIfNotSet(CONTENT_TYPE);
+                response.send(rejection.duplicate());
+                return;
+            }
+
+            long start = System.nanoTime();
+            context.onClose(outcome -> limit.release(start, System.nanoTime()));
+            context.next();
+        }
+    }
+}
@@ -20,14 +20,25 @@ package com.github.gregwhitaker.ratpack.error;
  * Base exception that all handled exceptions must extend in order to be handled correctly.
  */
 public abstract class BaseException extends RuntimeException {
-    private int status = 500;
+    private int status;
     private String errorCode;
-    private String errorMessage = "An error occurred. Please contact support.";
+    private String errorMessage;
     private String errorDetail;
     private String errorDetailUrl;
 
     public BaseException() {
-        // Noop
+        this.status = 500;
+        this.errorMessage = "An error occurred. Please contact support.";
+    }
+
+    /**
+     * Creates an exception whose status, message, detail and detail url are resolved from
+     * the {@link ErrorCatalog} entry for the supplied error code.
+     *
+     * @param errorCode error code
+     */
+    public BaseException(String errorCode) {
+        this.errorCode = errorCode;
     }
 
     public BaseException(int status, String errorMessage) {
@@ -30,6 +30,16 @@ public abstract class BaseFieldException extends RuntimeException {
     private String errorDetailUrl;
     private List<FieldExceptionDetail> fieldErrors;
 
+    /**
+     * Creates an exception whose status, message, detail and detail url are resolved from
+     * the {@link ErrorCatalog} entry for the supplied error code.
+     *
+     * @param errorCode error code
+     */
+    public BaseFieldException(String errorCode) {
+        this.errorCode = errorCode;
+    }
+
     public BaseFieldException(int status, String errorMessage) {
         this.status = status;
         this.errorMessage = errorMessage;
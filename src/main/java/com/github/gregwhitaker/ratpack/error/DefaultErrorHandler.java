@@ -16,17 +16,28 @@
 
 package com.github.gregwhitaker.ratpack.error;
 
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.base.Throwables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import ratpack.error.internal.ErrorHandler;
 import ratpack.handling.Context;
 
+import javax.inject.Inject;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -35,77 +46,320 @@ import java.util.function.Consumer;
  * rendering a standardized error response message.
  */
 public class DefaultErrorHandler implements ErrorHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(DefaultErrorHandler.class);
+
+    private static final Set<String> RESERVED_PROPERTIES = new HashSet<>(Arrays.asList(
+            "id",
+            "status",
+            "statusMessage",
+            "errorCode",
+            "errorMessage",
+            "errorDetail",
+            "errorDetailUrl",
+            "fieldErrors",
+            "stacktrace"
+    ));
+
+    private static final ErrorCatalog.Entry DEFAULT_ENTRY = new ErrorCatalog.Entry(null, 500, "An error occurred. Please contact support.", null, null);
+    private static final ErrorCatalog.Entry EMPTY_ENTRY = new ErrorCatalog.Entry(null, 0, null, null, null);
+
     private final ObjectMapper mapper;
+    private final ErrorCatalog catalog;
+    private final ErrorProfileRouter router;
 
     public DefaultErrorHandler() {
+        this(new ErrorModule.Config());
+    }
+
+    public DefaultErrorHandler(ErrorModule.Config config) {
+        this(config, Collections.emptySet());
+    }
+
+    public DefaultErrorHandler(ErrorModule.Config config, Set<ErrorEnricher> enrichers) {
+        this(config, ErrorCatalog.empty(), enrichers);
+    }
+
+    @Inject
+    public DefaultErrorHandler(ErrorModule.Config config, ErrorCatalog catalog, Set<ErrorEnricher> enrichers) {
         this.mapper = new ObjectMapper();
         this.mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.catalog = catalog;
+        this.router = new ErrorProfileRouter(config, enrichers);
     }
 
     @Override
     public void error(Context context, int statusCode) throws Exception {
+        Object event = ErrorEvents.isEnabled() ? ErrorEvents.begin() : null;
+
         context.getResponse().status(statusCode).send();
+
+        if (event != null) {
+            ErrorEvents.commit(event, statusCode, null, null, "");
+        }
     }
 
     @Override
     public void error(Context context, Throwable throwable) throws Exception {
+        Object event = ErrorEvents.isEnabled() ? ErrorEvents.begin() : null;
+
+        ErrorProfileRouter.Route route = router.resolve(context.getRequest().getPath());
+
+        ExtensibleResponse error = toResponse(throwable, route, route.exposeStackTrace(context.getServerConfig().isDevelopment()));
+        send(context, throwable, route, error, event);
+    }
+
+    /**
+     * Creates the error response for the supplied throwable.
+     *
+     * @param throwable error being handled
+     * @param route error profile route
+     * @param expose <code>true</code> if sensitive information should be exposed; otherwise <code>false</code>
+     * @return error response
+     */
+    private ExtensibleResponse toResponse(Throwable throwable, ErrorProfileRouter.Route route, boolean expose) {
         if (throwable instanceof BaseException) {
-            ErrorResponse error = new ErrorResponse(((BaseException) throwable).getStatus(), ((BaseException) throwable).getErrorMessage());
-            error.setErrorCode(((BaseException) throwable).getErrorCode());
-            error.setErrorDetail(((BaseException) throwable).getErrorDetail());
-            error.setErrorDetailUrl(((BaseException) throwable).getErrorDetailUrl());
-
-            // Expose sensitive information if running in development mode
-            if (context.getServerConfig().isDevelopment()) {
-                error.setStacktrace(Throwables.getStackTraceAsString(throwable));
+            BaseException exception = (BaseException) throwable;
+            ErrorCatalog.Entry entry = catalogEntry(exception.getErrorCode(), exception.getStatus(), exception.getErrorMessage());
+
+            int status = exception.getStatus() > 0 ? exception.getStatus() : entry.getStatus();
+
+            ErrorResponse error = new ErrorResponse(status, resolve(exception.getErrorMessage(), entry.getErrorMessage()));
+            error.setErrorCode(exception.getErrorCode());
+            error.setErrorDetail(resolve(exception.getErrorDetail(), entry.getErrorDetail()));
+            error.setErrorDetailUrl(resolve(exception.getErrorDetailUrl(), entry.getErrorDetailUrl()));
+
+            // Expose sensitive information if allowed by the error profile
+            if (expose) {
+                error.setStacktrace(route.stackTrace(throwable));
             }
 
-            context.getResponse().status(((BaseException) throwable).getStatus());
-            context.getResponse().send(mapper.writeValueAsString(error));
+            return error;
         } else if (throwable instanceof BaseFieldException) {
-            FieldErrorResponse error = new FieldErrorResponse(((BaseFieldException) throwable).getStatus(), ((BaseFieldException) throwable).getErrorMessage());
-            error.setErrorCode(((BaseFieldException) throwable).getErrorCode());
-            error.setErrorDetail(((BaseFieldException) throwable).getErrorDetail());
-            error.setErrorDetailUrl(((BaseFieldException) throwable).getErrorDetailUrl());
+            BaseFieldException exception = (BaseFieldException) throwable;
+            ErrorCatalog.Entry entry = catalogEntry(exception.getErrorCode(), exception.getStatus(), exception.getErrorMessage());
 
-            List<FieldError> fieldErrors = new ArrayList<>();
+            int status = exception.getStatus() > 0 ? exception.getStatus() : entry.getStatus();
 
-            ((BaseFieldException) throwable).getFieldErrors().forEach(new Consumer<BaseFieldException.FieldExceptionDetail>() {
-                @Override
-                public void accept(BaseFieldException.FieldExceptionDetail fieldExceptionDetail) {
-                    FieldError fieldError = new FieldError(fieldExceptionDetail.getField());
-                    fieldError.setErrorCode(fieldExceptionDetail.getErrorCode());
-                    fieldError.setErrorMessage(fieldExceptionDetail.getErrorMessage());
-                    fieldError.setErrorDetail(fieldExceptionDetail.getErrorDetail());
-                    fieldError.setErrorDetailUrl(fieldExceptionDetail.getErrorDetailUrl());
+            FieldErrorResponse error = new FieldErrorResponse(status, resolve(exception.getErrorMessage(), entry.getErrorMessage()));
+            error.setErrorCode(exception.getErrorCode());
+            error.setErrorDetail(resolve(exception.getErrorDetail(), entry.getErrorDetail()));
+            error.setErrorDetailUrl(resolve(exception.getErrorDetailUrl(), entry.getErrorDetailUrl()));
 
-                    fieldErrors.add(fieldError);
-                }
-            });
+            List<FieldError> fieldErrors = new ArrayList<>();
+
+            if (exception.getFieldErrors() != null) {
+                exception.getFieldErrors().forEach(new Consumer<BaseFieldException.FieldExceptionDetail>() {
+                    @Override
+                    public void accept(BaseFieldException.FieldExceptionDetail fieldExceptionDetail) {
+                        ErrorCatalog.Entry fieldEntry = catalog.get(fieldExceptionDetail.getErrorCode());
+                        if (fieldEntry == null) {
+                            fieldEntry = EMPTY_ENTRY;
+                        }
+
+                        FieldError fieldError = new FieldError(fieldExceptionDetail.getField());
+                        fieldError.setErrorCode(fieldExceptionDetail.getErrorCode());
+                        fieldError.setErrorMessage(resolve(fieldExceptionDetail.getErrorMessage(), fieldEntry.getErrorMessage()));
+                        fieldError.setErrorDetail(resolve(fieldExceptionDetail.getErrorDetail(), fieldEntry.getErrorDetail()));
+                        fieldError.setErrorDetailUrl(resolve(fieldExceptionDetail.getErrorDetailUrl(), fieldEntry.getErrorDetailUrl()));
+
+                        fieldErrors.add(fieldError);
+                    }
+                });
+            }
 
             error.setFieldErrors(fieldErrors);
 
-            // Expose sensitive information if running in development mode
-            if (context.getServerConfig().isDevelopment()) {
-                error.setStacktrace(Throwables.getStackTraceAsString(throwable));
+            // Expose sensitive information if allowed by the error profile
+            if (expose) {
+                error.setStacktrace(route.stackTrace(throwable));
             }
 
-            context.getResponse().status(((BaseFieldException) throwable).getStatus());
-            context.getResponse().send(mapper.writeValueAsString(error));
+            return error;
         } else {
-            ErrorResponse error = new ErrorResponse(500, "An error occurred. Please contact support.");
+            ErrorResponse error = new ErrorResponse(500, DEFAULT_ENTRY.getErrorMessage());
 
-            // Expose sensitive information if running in development mode
-            if (context.getServerConfig().isDevelopment()) {
+            // Expose sensitive information if allowed by the error profile
+            if (expose) {
                 error.setErrorDetail(throwable.getMessage());
-                error.setStacktrace(Throwables.getStackTraceAsString(throwable));
+                error.setStacktrace(route.stackTrace(throwable));
             }
 
-            context.getResponse().status(500);
-            context.getResponse().send(mapper.writeValueAsString(error));
+            return error;
+        }
+    }
+
+    /**
+     * Renders a static error response without an id, suitable for rendering once and sending many times.
+     *
+     * @param status HTTP status code
+     * @param errorMessage error message
+     * @return rendered error response
+     * @throws Exception if an error occurs
+     */
+    String render(int status, String errorMessage) throws Exception {
+        ErrorResponse error = new ErrorResponse(status, errorMessage);
+        error.setId(null);
+
+        return mapper.writeValueAsString(error);
+    }
+
+    /**
+     * Renders synthetic error responses of each type so that serializers, id generation and the status
+     * table are initialized and the rendering path is compiled before the first real error.
+     *
+     * @param iterations number of times each response type is rendered
+     * @throws Exception if an error occurs
+     */
+    void warmup(int iterations) throws Exception {
+        Throwable[] samples = new Throwable[] {
+                new WarmupException(),
+                new WarmupFieldException(),
+                new IllegalStateException("warmup")
+        };
+
+        for (int i = 0; i < iterations; i++) {
+            for (Throwable sample : samples) {
+                mapper.writeValueAsString(toResponse(sample, router.defaultRoute(), false));
+                mapper.writeValueAsString(toResponse(sample, router.defaultRoute(), true));
+            }
         }
     }
 
+    /**
+     * Gets the catalog entry for the supplied error code. Exceptions without a status of their own fall back
+     * to the generic server error; all others fall back to an entry without any values.
+     *
+     * @param errorCode error code
+     * @param status HTTP status code set on the exception
+     * @param errorMessage error message set on the exception
+     * @return catalog entry
+     */
+    private ErrorCatalog.Entry catalogEntry(String errorCode, int status, String errorMessage) {
+        ErrorCatalog.Entry entry = catalog.get(errorCode);
+        if (entry != null) {
+            return entry;
+        }
+
+        // Only code-only exceptions depend on the catalog, so only they are worth warning about
+        if (errorCode != null && status <= 0 && errorMessage == null && catalog.size() > 0) {
+            LOG.warn("Error code '{}' is not in the error catalog", errorCode);
+        }
+
+        return status > 0 ? EMPTY_ENTRY : DEFAULT_ENTRY;
+    }
+
+    private static String resolve(String value, String catalogValue) {
+        return value != null ? value : catalogValue;
+    }
+
+    /**
+     * Sends the error response once all registered enrichers have completed or been skipped.
+     *
+     * @param context request context
+     * @param throwable error being handled
+     * @param route error profile route
+     * @param error error response
+     * @param event error event started when handling began, or <code>null</code> if error events are disabled
+     * @throws Exception if an error occurs
+     */
+    private void send(Context context, Throwable throwable, ErrorProfileRouter.Route route, ExtensibleResponse error, Object event) throws Exception {
+        ErrorEnricherChain enricherChain = route.enricherChain();
+        if (enricherChain.isEmpty()) {
+            write(context, throwable, error, event);
+            return;
+        }
+
+        enricherChain.enrich(context, throwable).then(properties -> {
+            error.addProperties(properties);
+            write(context, throwable, error, event);
+        });
+    }
+
+    private void write(Context context, Throwable throwable, ExtensibleResponse error, Object event) throws Exception {
+        String body = serialize(error);
+
+        context.getResponse().status(error.getStatus());
+        context.getResponse().send(body);
+
+        if (event != null) {
+            ErrorEvents.commit(event, error.getStatus(), error.getErrorCode(), throwable, body);
+        }
+    }
+
+    /**
+     * Serializes the error response, dropping any enricher properties that cannot be serialized so that
+     * a misbehaving enricher never prevents the error response from being sent.
+     *
+     * @param error error response
+     * @return serialized error response
+     * @throws JsonProcessingException if the error response cannot be serialized without enricher properties
+     */
+    private String serialize(ExtensibleResponse error) throws JsonProcessingException {
+        try {
+            return mapper.writeValueAsString(error);
+        } catch (JsonProcessingException e) {
+            Map<String, Object> properties = error.getProperties();
+            if (properties == null || properties.isEmpty()) {
+                throw e;
+            }
+
+            List<String> rejected = new ArrayList<>();
+            Iterator<Map.Entry<String, Object>> it = properties.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Object> property = it.next();
+                try {
+                    mapper.writeValueAsString(property.getValue());
+                } catch (JsonProcessingException ex) {
+                    rejected.add(property.getKey());
+                    it.remove();
+                }
+            }
+
+            LOG.warn("Error response properties {} could not be serialized and were removed", rejected, e);
+
+            try {
+                return mapper.writeValueAsString(error);
+            } catch (JsonProcessingException ex) {
+                // Fall back to the un-enriched response
+                properties.clear();
+                return mapper.writeValueAsString(error);
+            }
+        }
+    }
+
+    /**
+     * Exception rendered during warm-up. Warm-up exceptions have no error code, so they are never reported as
+     * missing from the error catalog.
+     */
+    private static class WarmupException extends BaseException {
+        WarmupException() {
+            super(404, null, "Not Found", "warmup", "http://localhost/warmup");
+        }
+    }
+
+    /**
+     * Field-level exception rendered during warm-up
+     */
+    private static class WarmupFieldException extends BaseFieldException {
+        WarmupFieldException() {
+            super(400, null, "Bad Request", "warmup");
+            addField("warmup", null, "warmup", "warmup", "http://localhost/warmup");
+        }
+    }
+
+    /**
+     * Error response that accepts additional properties from enrichers
+     */
+    private interface ExtensibleResponse {
+        int getStatus();
+
+        String getErrorCode();
+
+        Map<String, Object> getProperties();
+
+        void addProperties(Map<String, Object> properties);
+    }
+
     /**
      * Error response
      */
@@ -119,7 +373,7 @@ public class DefaultErrorHandler implements ErrorHandler {
             "errorDetailUrl",
             "stacktrace"
     })
-    private static class ErrorResponse implements Serializable {
+    private static class ErrorResponse implements ExtensibleResponse, Serializable {
         private static final long serialVersionUID = -9089646869966970667L;
 
         private String id;
@@ -128,7 +382,8 @@ public class DefaultErrorHandler implements ErrorHandler {
         private String errorMessage;
         private String errorDetail;
         private String errorDetailUrl;
-        private String stacktrace;
+        private Object stacktrace;
+        private Map<String, Object> properties;
 
         ErrorResponse(int status, String errorMessage) {
             this.id = UUID.randomUUID().toString();
@@ -189,13 +444,31 @@ public class DefaultErrorHandler implements ErrorHandler {
             this.errorDetailUrl = errorDetailUrl;
         }
 
-        public String getStacktrace() {
+        public Object getStacktrace() {
             return stacktrace;
         }
 
-        public void setStacktrace(String stacktrace) {
+        public void setStacktrace(Object stacktrace) {
             this.stacktrace = stacktrace;
         }
+
+        @JsonAnyGetter
+        public Map<String, Object> getProperties() {
+            return properties;
+        }
+
+        @Override
+        public void addProperties(Map<String, Object> properties) {
+            properties.forEach((name, value) -> {
+                if (!RESERVED_PROPERTIES.contains(name)) {
+                    if (this.properties == null) {
+                        this.properties = new LinkedHashMap<>();
+                    }
+
+                    this.properties.put(name, value);
+                }
+            });
+        }
     }
 
     /**
@@ -212,7 +485,7 @@ public class DefaultErrorHandler implements ErrorHandler {
             "fieldErrors",
             "stacktrace"
     })
-    private static class FieldErrorResponse implements Serializable {
+    private static class FieldErrorResponse implements ExtensibleResponse, Serializable {
         private static final long serialVersionUID = 171077544021179023L;
 
         private String id;
@@ -222,7 +495,8 @@ public class DefaultErrorHandler implements ErrorHandler {
         private String errorDetail;
         private String errorDetailUrl;
         private List<FieldError> fieldErrors;
-        private String stacktrace;
+        private Object stacktrace;
+        private Map<String, Object> properties;
 
         public FieldErrorResponse(int status, String errorMessage) {
             this.id = UUID.randomUUID().toString();
@@ -299,13 +573,31 @@ public class DefaultErrorHandler implements ErrorHandler {
             this.fieldErrors = fieldErrors;
         }
 
-        public String getStacktrace() {
+        public Object getStacktrace() {
             return stacktrace;
         }
 
-        public void setStacktrace(String stacktrace) {
+        public void setStacktrace(Object stacktrace) {
             this.stacktrace = stacktrace;
         }
+
+        @JsonAnyGetter
+        public Map<String, Object> getProperties() {
+            return properties;
+        }
+
+        @Override
+        public void addProperties(Map<String, Object> properties) {
+            properties.forEach((name, value) -> {
+                if (!RESERVED_PROPERTIES.contains(name)) {
+                    if (this.properties == null) {
+                        this.properties = new LinkedHashMap<>();
+                    }
+
+                    this.properties.put(name, value);
+                }
+            });
+        }
     }
 
     /**
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable catalog of error codes and their default status, message, detail and documentation url.
+ *
+ * The catalog is loaded from the classpath resource configured with {@link ErrorModule.Config#errorCatalog(String)}
+ * when the application starts and is validated as a whole, so that a malformed entry prevents startup rather than
+ * surfacing on the first error. The resource is a JSON object keyed by error code:
+ *
+ * <pre>
+ * {
+ *     "123ABC": {
+ *         "status": 404,
+ *         "errorMessage": "Not Found",
+ *         "errorDetail": "Widget was not found",
+ *         "errorDetailUrl": "https://docs.test.com/errors/123abc"
+ *     }
+ * }
+ * </pre>
+ *
+ * Entries are stored in an open-addressing hash table so that lookups do not allocate.
+ */
+public final class ErrorCatalog {
+    private static final ErrorCatalog EMPTY = new ErrorCatalog(new String[1], new Entry[1]);
+
+    private final String[] codes;
+    private final Entry[] entries;
+    private final int mask;
+    private final int size;
+
+    @Inject
+    ErrorCatalog(ErrorModule.Config config) {
+        this(config.getErrorCatalog() != null ? load(config.getErrorCatalog()) : EMPTY);
+    }
+
+    private ErrorCatalog(ErrorCatalog catalog) {
+        this(catalog.codes, catalog.entries);
+    }
+
+    private ErrorCatalog(String[] codes, Entry[] entries) {
+        this.codes = codes;
+        this.entries = entries;
+        this.mask = codes.length - 1;
+
+        int count = 0;
+        for (String code : codes) {
+            if (code != null) {
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    /**
+     * Gets an empty error catalog.
+     *
+     * @return empty error catalog
+     */
+    public static ErrorCatalog empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Loads and validates an error catalog from a classpath resource.
+     *
+     * @param resource classpath resource name
+     * @return error catalog
+     * @throws IllegalStateException if the resource cannot be found, read or contains invalid entries
+     */
+    public static ErrorCatalog load(String resource) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = ErrorCatalog.class.getClassLoader();
+        }
+
+        try (InputStream in = classLoader.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException(String.format("Error catalog resource '%s' not found", resource));
+            }
+
+            ObjectMapper mapper = new ObjectMapper();
+            mapper.enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION);
+
+            return of(mapper.readTree(in), resource);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Error catalog resource '%s' is invalid: %s", resource, e.getOriginalMessage()), e);
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Error catalog resource '%s' could not be read", resource), e);
+        }
+    }
+
+    private static ErrorCatalog of(JsonNode root, String resource) {
+        if (root == null || !root.isObject()) {
+            throw new IllegalStateException(String.format("Error catalog resource '%s' must contain a JSON object", resource));
+        }
+
+        List<String> problems = new ArrayList<>();
+        List<Entry> parsed = new ArrayList<>(root.size());
+
+        Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            Entry entry = entry(field.getKey(), field.getValue(), problems);
+            if (entry != null) {
+                parsed.add(entry);
+            }
+        }
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException(String.format("Error catalog resource '%s' is invalid: %s", resource, String.join("; ", problems)));
+        }
+
+        // Power of two capacity with a load factor of at most 0.5 keeps probe sequences short
+        int capacity = Integer.highestOneBit(Math.max(parsed.size(), 1) * 2 - 1) << 1;
+        String[] codes = new String[capacity];
+        Entry[] entries = new Entry[capacity];
+
+        for (Entry entry : parsed) {
+            int i = index(entry.getErrorCode(), capacity - 1);
+            while (codes[i] != null) {
+                i = (i + 1) & (capacity - 1);
+            }
+
+            codes[i] = entry.getErrorCode();
+            entries[i] = entry;
+        }
+
+        return new ErrorCatalog(codes, entries);
+    }
+
+    private static Entry entry(String code, JsonNode node, List<String> problems) {
+        if (code.trim().isEmpty()) {
+            problems.add("error code must not be blank");
+            return null;
+        }
+
+        if (!node.isObject()) {
+            problems.add(String.format("'%s' must be a JSON object", code));
+            return null;
+        }
+
+        Iterator<String> names = node.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!"status".equals(name) && !"errorMessage".equals(name) && !"errorDetail".equals(name) && !"errorDetailUrl".equals(name)) {
+                problems.add(String.format("'%s' has unknown property '%s'", code, name));
+            }
+        }
+
+        JsonNode status = node.get("status");
+        if (status == null || !status.isInt() || status.intValue() < 400 || status.intValue() > 599) {
+            problems.add(String.format("'%s' must have an integer status between 400 and 599", code));
+            return null;
+        }
+
+        String errorMessage = text(node, "errorMessage", code, problems);
+        String errorDetail = text(node, "errorDetail", code, problems);
+        String errorDetailUrl = text(node, "errorDetailUrl", code, problems);
+
+        if (errorDetailUrl != null) {
+            try {
+                new URI(errorDetailUrl);
+            } catch (URISyntaxException e) {
+                problems.add(String.format("'%s' has an invalid errorDetailUrl '%s'", code, errorDetailUrl));
+            }
+        }
+
+        if (errorMessage == null) {
+            errorMessage = HttpStatusMessage.of(status.intValue());
+        }
+
+        return new Entry(code, status.intValue(), errorMessage, errorDetail, errorDetailUrl);
+    }
+
+    private static String text(JsonNode node, String name, String code, List<String> problems) {
+        JsonNode value = node.get(name);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+
+        if (!value.isTextual()) {
+            problems.add(String.format("'%s' property '%s' must be a string", code, name));
+            return null;
+        }
+
+        return value.textValue();
+    }
+
+    private static int index(String code, int mask) {
+        int h = code.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Gets the catalog entry for the supplied error code.
+     *
+     * @param errorCode error code
+     * @return catalog entry or <code>null</code> if the error code is not in the catalog
+     */
+    public Entry get(String errorCode) {
+        if (errorCode == null || size == 0) {
+            return null;
+        }
+
+        int i = index(errorCode, mask);
+        String code;
+        while ((code = codes[i]) != null) {
+            if (code.equals(errorCode)) {
+                return entries[i];
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the number of entries in the catalog.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Error catalog entry.
+     */
+    public static final class Entry {
+        private final String errorCode;
+        private final int status;
+        private final String errorMessage;
+        private final String errorDetail;
+        private final String errorDetailUrl;
+
+        Entry(String errorCode, int status, String errorMessage, String errorDetail, String errorDetailUrl) {
+            this.errorCode = errorCode;
+            this.status = status;
+            this.errorMessage = errorMessage;
+            this.errorDetail = errorDetail;
+            this.errorDetailUrl = errorDetailUrl;
+        }
+
+        public String getErrorCode() {
+            return errorCode;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+
+        public String getErrorDetail() {
+            return errorDetail;
+        }
+
+        public String getErrorDetailUrl() {
+            return errorDetailUrl;
+        }
+    }
+}
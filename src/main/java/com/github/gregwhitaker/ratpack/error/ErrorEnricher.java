@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import ratpack.exec.Promise;
+import ratpack.handling.Context;
+
+import java.util.Map;
+
+/**
+ * Interceptor that contributes additional properties, such as documentation links or support hints,
+ * to error responses.
+ *
+ * Enrichers are registered with {@link ErrorModule#enricherBinder(com.google.inject.Binder)}, are invoked
+ * concurrently and have their properties merged in registration order. All enrichers share the configured
+ * enricher timeout; enrichers that fail or time out are skipped and the response is sent without their properties. Enrichers must not block
+ * the calling thread; use {@link ratpack.exec.Blocking} for blocking work.
+ */
+@FunctionalInterface
+public interface ErrorEnricher {
+
+    /**
+     * Gets the additional properties to add to the error response.
+     *
+     * Properties whose names collide with the standard error response fields are ignored. When several
+     * enrichers contribute the same property, the one registered last wins.
+     *
+     * @param context request context
+     * @param throwable error being handled
+     * @return promise for the additional properties to add to the error response
+     * @throws Exception if an error occurs
+     */
+    Promise<Map<String, Object>> enrich(Context context, Throwable throwable) throws Exception;
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.exec.Downstream;
+import ratpack.exec.Execution;
+import ratpack.exec.Promise;
+import ratpack.handling.Context;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs the registered {@link ErrorEnricher}s concurrently without blocking the calling thread.
+ *
+ * All enrichers are started at once in forked executions and race a single timer scheduled on the execution
+ * controller, so the error response is delayed by at most one timeout no matter how many enrichers are slow. A slow
+ * or failing enricher is skipped rather than waited on, and the properties of the enrichers that did complete are
+ * merged in registration order.
+ */
+final class ErrorEnricherChain {
+    private static final Logger LOG = LoggerFactory.getLogger(ErrorEnricherChain.class);
+
+    private final List<ErrorEnricher> enrichers;
+    private final long timeoutNanos;
+
+    ErrorEnricherChain(Collection<ErrorEnricher> enrichers, Duration timeout) {
+        this.enrichers = Collections.unmodifiableList(new ArrayList<>(enrichers));
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    boolean isEmpty() {
+        return enrichers.isEmpty();
+    }
+
+    /**
+     * Runs all enrichers and merges their properties.
+     *
+     * @param context request context
+     * @param throwable error being handled
+     * @return promise for the merged properties; never fails
+     */
+    Promise<Map<String, Object>> enrich(Context context, Throwable throwable) {
+        return Promise.async(downstream -> {
+            Results results = new Results(downstream);
+
+            results.timeout = Execution.current().getController().getExecutor().schedule(() -> {
+                if (results.completed.compareAndSet(false, true)) {
+                    for (int i = 0; i < enrichers.size(); i++) {
+                        if (results.properties.get(i) == null) {
+                            LOG.warn("Error enricher '{}' did not complete within {}ms and was skipped",
+                                    enrichers.get(i).getClass().getName(), TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+                        }
+                    }
+
+                    downstream.success(results.merge());
+                }
+            }, timeoutNanos, TimeUnit.NANOSECONDS);
+
+            for (int i = 0; i < enrichers.size(); i++) {
+                ErrorEnricher enricher = enrichers.get(i);
+                int index = i;
+
+                Execution.fork()
+                        .onError(t -> {
+                            if (!results.completed.get()) {
+                                LOG.warn("Error enricher '{}' failed and was skipped", enricher.getClass().getName(), t);
+                            }
+
+                            results.complete(index, Collections.emptyMap());
+                        })
+                        .start(execution -> enricher.enrich(context, throwable).then(properties ->
+                                results.complete(index, properties != null ? properties : Collections.emptyMap())));
+            }
+        });
+    }
+
+    /**
+     * Properties returned by each enricher, indexed by registration order
+     */
+    private final class Results {
+        private final Downstream<? super Map<String, Object>> downstream;
+        private final AtomicReferenceArray<Map<String, Object>> properties = new AtomicReferenceArray<>(enrichers.size());
+        private final AtomicInteger remaining = new AtomicInteger(enrichers.size());
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile ScheduledFuture<?> timeout;
+
+        Results(Downstream<? super Map<String, Object>> downstream) {
+            this.downstream = downstream;
+        }
+
+        void complete(int index, Map<String, Object> enriched) {
+            properties.set(index, enriched);
+
+            if (remaining.decrementAndGet() == 0 && completed.compareAndSet(false, true)) {
+                timeout.cancel(false);
+
+                downstream.success(merge());
+            }
+        }
+
+        Map<String, Object> merge() {
+            Map<String, Object> merged = new LinkedHashMap<>();
+            for (int i = 0; i < properties.length(); i++) {
+                Map<String, Object> enriched = properties.get(i);
+                if (enriched != null) {
+                    merged.putAll(enriched);
+                }
+            }
+
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+/**
+ * Emits Java Flight Recorder events for rendered error responses.
+ *
+ * Flight Recorder events are only available on Java 11 and later, where this class is replaced by the version
+ * packaged under <code>META-INF/versions/11</code> of the multi-release jar. On earlier versions events are
+ * never enabled. Events are passed around as <code>Object</code> so that callers do not depend on
+ * <code>jdk.jfr</code>.
+ */
+final class ErrorEvents {
+
+    private ErrorEvents() {
+        // Noop
+    }
+
+    /**
+     * Determines whether error events are currently being recorded.
+     *
+     * @return <code>true</code> if error events are being recorded; otherwise <code>false</code>
+     */
+    static boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Starts timing an error event. Only called when {@link #isEnabled()} returns <code>true</code>.
+     *
+     * @return started error event
+     */
+    static Object begin() {
+        return null;
+    }
+
+    /**
+     * Ends and records an error event.
+     *
+     * @param event error event returned by {@link #begin()}
+     * @param status HTTP status code
+     * @param errorCode error code
+     * @param throwable error being handled, or <code>null</code> if the error was raised by status code
+     * @param body rendered error response
+     */
+    static void commit(Object event, int status, String errorCode, Throwable throwable, String body) {
+        // Noop
+    }
+}
@@ -16,18 +16,349 @@
 
 package com.github.gregwhitaker.ratpack.error;
 
-import com.google.inject.AbstractModule;
+import com.google.inject.Binder;
+import com.google.inject.Singleton;
+import com.google.inject.multibindings.Multibinder;
 import ratpack.error.ClientErrorHandler;
 import ratpack.error.ServerErrorHandler;
+import ratpack.guice.ConfigurableModule;
+import ratpack.handling.HandlerDecorator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Guice module that wires up the global error handler.
  */
-public class ErrorModule extends AbstractModule {
+public class ErrorModule extends ConfigurableModule<ErrorModule.Config> {
 
     @Override
     protected void configure() {
+        // Share a single handler so serializer caches survive between errors and warm-up is effective
+        bind(DefaultErrorHandler.class).in(Singleton.class);
         bind(ClientErrorHandler.class).to(DefaultErrorHandler.class);
         bind(ServerErrorHandler.class).to(DefaultErrorHandler.class);
+
+        // Load the error catalog eagerly so that an invalid catalog fails startup
+        bind(ErrorCatalog.class).asEagerSingleton();
+
+        enricherBinder(binder());
+
+        bind(ErrorWarmupService.class);
+
+        Multibinder.newSetBinder(binder(), HandlerDecorator.class).addBinding().to(AdmissionControl.class);
+    }
+
+    /**
+     * Gets the binder used to register {@link ErrorEnricher}s. Enricher properties are merged in the order
+     * in which the enrichers are registered.
+     *
+     * @param binder Guice binder
+     * @return error enricher binder
+     */
+    public static Multibinder<ErrorEnricher> enricherBinder(Binder binder) {
+        return Multibinder.newSetBinder(binder, ErrorEnricher.class);
+    }
+
+    /**
+     * Configuration for the error module.
+     */
+    public static class Config {
+        private StackTraceFormat stackTraceFormat = StackTraceFormat.STRUCTURED;
+        private int maxStackFrames = 32;
+        private int maxCauses = 8;
+        private List<String> collapsedPackages = new ArrayList<>(Arrays.asList(
+                "ratpack.",
+                "io.netty.",
+                "com.google.inject.",
+                "com.google.common.",
+                "sun.reflect.",
+                "java.lang.reflect.",
+                "jdk.internal."
+        ));
+        private Duration enricherTimeout = Duration.ofMillis(250);
+        private String errorCatalog;
+        private boolean warmup = false;
+        private int warmupIterations = 500;
+        private Map<String, ErrorProfile> profiles = new LinkedHashMap<>();
+        private boolean admissionControl = false;
+        private int initialConcurrencyLimit = 100;
+        private int minConcurrencyLimit = 10;
+        private int maxConcurrencyLimit = 1000;
+        private Duration admissionLatencyThreshold = Duration.ofMillis(500);
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        public StackTraceFormat getStackTraceFormat() {
+            return stackTraceFormat;
+        }
+
+        /**
+         * Sets the format used when exposing stack traces in development mode.
+         *
+         * @param stackTraceFormat stack trace format
+         * @return this config
+         */
+        public Config stackTraceFormat(StackTraceFormat stackTraceFormat) {
+            this.stackTraceFormat = stackTraceFormat;
+            return this;
+        }
+
+        public int getMaxStackFrames() {
+            return maxStackFrames;
+        }
+
+        /**
+         * Sets the maximum number of frames rendered for each throwable in a structured stack trace.
+         *
+         * @param maxStackFrames maximum number of frames
+         * @return this config
+         * @throws IllegalArgumentException if the maximum number of frames is negative
+         */
+        public Config maxStackFrames(int maxStackFrames) {
+            if (maxStackFrames < 0) {
+                throw new IllegalArgumentException("maxStackFrames must not be negative");
+            }
+
+            this.maxStackFrames = maxStackFrames;
+            return this;
+        }
+
+        public int getMaxCauses() {
+            return maxCauses;
+        }
+
+        /**
+         * Sets the maximum number of causes rendered in a structured stack trace.
+         *
+         * @param maxCauses maximum number of causes
+         * @return this config
+         * @throws IllegalArgumentException if the maximum number of causes is negative
+         */
+        public Config maxCauses(int maxCauses) {
+            if (maxCauses < 0) {
+                throw new IllegalArgumentException("maxCauses must not be negative");
+            }
+
+            this.maxCauses = maxCauses;
+            return this;
+        }
+
+        public List<String> getCollapsedPackages() {
+            return collapsedPackages;
+        }
+
+        /**
+         * Sets the package prefixes whose consecutive frames are collapsed into a single summary frame.
+         *
+         * @param collapsedPackages package prefixes to collapse
+         * @return this config
+         */
+        public Config collapsedPackages(List<String> collapsedPackages) {
+            this.collapsedPackages = collapsedPackages;
+            return this;
+        }
+
+        public Duration getEnricherTimeout() {
+            return enricherTimeout;
+        }
+
+        /**
+         * Sets the time the {@link ErrorEnricher}s are given to complete; enrichers that have not completed by then
+         * are skipped.
+         *
+         * @param enricherTimeout enricher timeout
+         * @return this config
+         */
+        public Config enricherTimeout(Duration enricherTimeout) {
+            this.enricherTimeout = enricherTimeout;
+            return this;
+        }
+
+        public String getErrorCatalog() {
+            return errorCatalog;
+        }
+
+        /**
+         * Sets the classpath resource from which the {@link ErrorCatalog} is loaded.
+         *
+         * @param errorCatalog classpath resource name
+         * @return this config
+         */
+        public Config errorCatalog(String errorCatalog) {
+            this.errorCatalog = errorCatalog;
+            return this;
+        }
+
+        public boolean isWarmup() {
+            return warmup;
+        }
+
+        /**
+         * Sets whether the error rendering path is warmed up when the application starts.
+         *
+         * @param warmup <code>true</code> to warm up the error rendering path; otherwise <code>false</code>
+         * @return this config
+         */
+        public Config warmup(boolean warmup) {
+            this.warmup = warmup;
+            return this;
+        }
+
+        public int getWarmupIterations() {
+            return warmupIterations;
+        }
+
+        /**
+         * Sets the number of times each error response type is rendered during warm-up.
+         *
+         * @param warmupIterations number of warm-up iterations
+         * @return this config
+         */
+        public Config warmupIterations(int warmupIterations) {
+            this.warmupIterations = warmupIterations;
+            return this;
+        }
+
+        public Map<String, ErrorProfile> getProfiles() {
+            return profiles;
+        }
+
+        /**
+         * Sets the error profile used for requests whose path starts with the supplied prefix. Prefixes match
+         * whole path segments and the longest matching prefix wins.
+         *
+         * @param pathPrefix request path prefix, e.g. <code>/api</code>
+         * @param profile error profile
+         * @return this config
+         */
+        public Config profile(String pathPrefix, ErrorProfile profile) {
+            this.profiles.put(pathPrefix, profile);
+            return this;
+        }
+
+        public boolean isAdmissionControl() {
+            return admissionControl;
+        }
+
+        /**
+         * Sets whether requests in excess of the adaptive concurrency limit are rejected with a
+         * <code>503 Service Unavailable</code> error response.
+         *
+         * @param admissionControl <code>true</code> to enable admission control; otherwise <code>false</code>
+         * @return this config
+         */
+        public Config admissionControl(boolean admissionControl) {
+            this.admissionControl = admissionControl;
+            return this;
+        }
+
+        public int getInitialConcurrencyLimit() {
+            return initialConcurrencyLimit;
+        }
+
+        /**
+         * Sets the number of concurrent requests admitted when the application starts.
+         *
+         * @param initialConcurrencyLimit initial concurrency limit
+         * @return this config
+         * @throws IllegalArgumentException if the initial concurrency limit is less than one
+         */
+        public Config initialConcurrencyLimit(int initialConcurrencyLimit) {
+            if (initialConcurrencyLimit < 1) {
+                throw new IllegalArgumentException("initialConcurrencyLimit must be at least 1");
+            }
+
+            this.initialConcurrencyLimit = initialConcurrencyLimit;
+            return this;
+        }
+
+        public int getMinConcurrencyLimit() {
+            return minConcurrencyLimit;
+        }
+
+        /**
+         * Sets the lowest value the adaptive concurrency limit can shrink to.
+         *
+         * @param minConcurrencyLimit minimum concurrency limit
+         * @return this config
+         * @throws IllegalArgumentException if the minimum concurrency limit is less than one or greater than the
+         * maximum concurrency limit
+         */
+        public Config minConcurrencyLimit(int minConcurrencyLimit) {
+            if (minConcurrencyLimit < 1) {
+                throw new IllegalArgumentException("minConcurrencyLimit must be at least 1");
+            }
+
+            if (minConcurrencyLimit > maxConcurrencyLimit) {
+                throw new IllegalArgumentException("minConcurrencyLimit must not be greater than maxConcurrencyLimit");
+            }
+
+            this.minConcurrencyLimit = minConcurrencyLimit;
+            return this;
+        }
+
+        public int getMaxConcurrencyLimit() {
+            return maxConcurrencyLimit;
+        }
+
+        /**
+         * Sets the highest value the adaptive concurrency limit can grow to.
+         *
+         * @param maxConcurrencyLimit maximum concurrency limit
+         * @return this config
+         * @throws IllegalArgumentException if the maximum concurrency limit is less than the minimum concurrency limit
+         */
+        public Config maxConcurrencyLimit(int maxConcurrencyLimit) {
+            if (maxConcurrencyLimit < minConcurrencyLimit) {
+                throw new IllegalArgumentException("maxConcurrencyLimit must not be less than minConcurrencyLimit");
+            }
+
+            this.maxConcurrencyLimit = maxConcurrencyLimit;
+            return this;
+        }
+
+        public Duration getAdmissionLatencyThreshold() {
+            return admissionLatencyThreshold;
+        }
+
+        /**
+         * Sets the request latency above which the concurrency limit is reduced.
+         *
+         * @param admissionLatencyThreshold latency threshold
+         * @return this config
+         * @throws IllegalArgumentException if the latency threshold is not positive
+         */
+        public Config admissionLatencyThreshold(Duration admissionLatencyThreshold) {
+            if (admissionLatencyThreshold == null || admissionLatencyThreshold.isNegative() || admissionLatencyThreshold.isZero()) {
+                throw new IllegalArgumentException("admissionLatencyThreshold must be positive");
+            }
+
+            this.admissionLatencyThreshold = admissionLatencyThreshold;
+            return this;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        /**
+         * Sets the delay sent in the <code>Retry-After</code> header of rejected requests.
+         *
+         * @param retryAfter retry delay
+         * @return this config
+         * @throws IllegalArgumentException if the retry delay is not positive
+         */
+        public Config retryAfter(Duration retryAfter) {
+            if (retryAfter == null || retryAfter.isNegative() || retryAfter.isZero()) {
+                throw new IllegalArgumentException("retryAfter must be positive");
+            }
+
+            this.retryAfter = retryAfter;
+            return this;
+        }
     }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Error rendering profile applied to requests whose path starts with a configured prefix.
+ *
+ * @see ErrorModule.Config#profile(String, ErrorProfile)
+ */
+public class ErrorProfile {
+    private StackTracePolicy stackTracePolicy = StackTracePolicy.DEVELOPMENT;
+    private StackTraceFormat stackTraceFormat;
+    private List<Class<? extends ErrorEnricher>> enrichers;
+
+    public StackTracePolicy getStackTracePolicy() {
+        return stackTracePolicy;
+    }
+
+    /**
+     * Sets when stack traces are exposed in error responses.
+     *
+     * @param stackTracePolicy stack trace policy
+     * @return this profile
+     */
+    public ErrorProfile stackTracePolicy(StackTracePolicy stackTracePolicy) {
+        this.stackTracePolicy = stackTracePolicy;
+        return this;
+    }
+
+    public StackTraceFormat getStackTraceFormat() {
+        return stackTraceFormat;
+    }
+
+    /**
+     * Sets the format of exposed stack traces. Defaults to {@link ErrorModule.Config#getStackTraceFormat()}.
+     *
+     * @param stackTraceFormat stack trace format
+     * @return this profile
+     */
+    public ErrorProfile stackTraceFormat(StackTraceFormat stackTraceFormat) {
+        this.stackTraceFormat = stackTraceFormat;
+        return this;
+    }
+
+    public List<Class<? extends ErrorEnricher>> getEnrichers() {
+        return enrichers;
+    }
+
+    /**
+     * Restricts the registered {@link ErrorEnricher}s that are run for this profile. All registered
+     * enrichers are run unless this is set; supply no classes to disable enrichment.
+     *
+     * @param enrichers enricher types to run
+     * @return this profile
+     */
+    @SafeVarargs
+    public final ErrorProfile enrichers(Class<? extends ErrorEnricher>... enrichers) {
+        this.enrichers = new ArrayList<>(Arrays.asList(enrichers));
+        return this;
+    }
+}
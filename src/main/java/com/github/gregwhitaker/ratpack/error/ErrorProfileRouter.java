@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import com.google.common.base.Throwables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the {@link ErrorProfile} for a request path.
+ *
+ * Profiles are compiled once into a character trie keyed by path prefix, so resolution walks the request
+ * path a single time and does not allocate. Prefixes only match on path segment boundaries, and the
+ * longest matching prefix wins.
+ */
+final class ErrorProfileRouter {
+    private final Node root;
+
+    ErrorProfileRouter(ErrorModule.Config config, Collection<ErrorEnricher> enrichers) {
+        this.root = new Node();
+        this.root.route = new Route(config, new ErrorProfile(), enrichers);
+
+        for (Map.Entry<String, ErrorProfile> profile : config.getProfiles().entrySet()) {
+            String prefix = normalize(profile.getKey());
+
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.addChild(prefix.charAt(i));
+            }
+
+            node.route = new Route(config, profile.getValue(), enrichers);
+        }
+    }
+
+    /**
+     * Gets the route for requests that do not match any configured prefix.
+     *
+     * @return default route
+     */
+    Route defaultRoute() {
+        return root.route;
+    }
+
+    /**
+     * Gets the route for the supplied request path.
+     *
+     * @param path request path
+     * @return route for the longest matching prefix, or the default route
+     */
+    Route resolve(String path) {
+        Route match = root.route;
+        Node node = root;
+
+        int length = path.length();
+        for (int i = path.startsWith("/") ? 1 : 0; i < length; i++) {
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                break;
+            }
+
+            if (node.route != null && (i + 1 == length || path.charAt(i + 1) == '/')) {
+                match = node.route;
+            }
+        }
+
+        return match;
+    }
+
+    private static String normalize(String prefix) {
+        int start = 0;
+        int end = prefix.length();
+        while (start < end && prefix.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && prefix.charAt(end - 1) == '/') {
+            end--;
+        }
+
+        if (start == end) {
+            throw new IllegalArgumentException(String.format("Error profile path prefix '%s' must not be empty", prefix));
+        }
+
+        return prefix.substring(start, end);
+    }
+
+    /**
+     * Trie node with children kept sorted by character for binary search.
+     */
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private Route route;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node addChild(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i >= 0) {
+                return children[i];
+            }
+
+            int insert = -(i + 1);
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+
+            System.arraycopy(labels, 0, newLabels, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(labels, insert, newLabels, insert + 1, labels.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+
+            Node child = new Node();
+            newLabels[insert] = c;
+            newChildren[insert] = child;
+
+            this.labels = newLabels;
+            this.children = newChildren;
+
+            return child;
+        }
+    }
+
+    /**
+     * Compiled error profile.
+     */
+    static final class Route {
+        private final StackTracePolicy stackTracePolicy;
+        private final StackTraceFormat stackTraceFormat;
+        private final StackTraceRenderer stackTraceRenderer;
+        private final ErrorEnricherChain enricherChain;
+
+        Route(ErrorModule.Config config, ErrorProfile profile, Collection<ErrorEnricher> enrichers) {
+            this.stackTracePolicy = profile.getStackTracePolicy();
+            this.stackTraceFormat = profile.getStackTraceFormat() != null ? profile.getStackTraceFormat() : config.getStackTraceFormat();
+            this.stackTraceRenderer = new StackTraceRenderer(config);
+            this.enricherChain = new ErrorEnricherChain(filter(enrichers, profile.getEnrichers()), config.getEnricherTimeout());
+        }
+
+        private static List<ErrorEnricher> filter(Collection<ErrorEnricher> enrichers, List<Class<? extends ErrorEnricher>> types) {
+            List<ErrorEnricher> filtered = new ArrayList<>(enrichers.size());
+            for (ErrorEnricher enricher : enrichers) {
+                if (types == null || types.stream().anyMatch(type -> type.isInstance(enricher))) {
+                    filtered.add(enricher);
+                }
+            }
+
+            return filtered;
+        }
+
+        /**
+         * Determines whether stack traces are exposed for this route.
+         *
+         * @param development <code>true</code> if running in development mode; otherwise <code>false</code>
+         * @return <code>true</code> if stack traces should be exposed; otherwise <code>false</code>
+         */
+        boolean exposeStackTrace(boolean development) {
+            return stackTracePolicy == StackTracePolicy.ALWAYS || (stackTracePolicy == StackTracePolicy.DEVELOPMENT && development);
+        }
+
+        /**
+         * Renders the stack trace of the supplied throwable in the configured format.
+         *
+         * @param throwable throwable
+         * @return stack trace string or structured stack trace
+         */
+        Object stackTrace(Throwable throwable) {
+            if (stackTraceFormat == StackTraceFormat.STRING) {
+                return Throwables.getStackTraceAsString(throwable);
+            }
+
+            return stackTraceRenderer.render(throwable);
+        }
+
+        ErrorEnricherChain enricherChain() {
+            return enricherChain;
+        }
+    }
+}
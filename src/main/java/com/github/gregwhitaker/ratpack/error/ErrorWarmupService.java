@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.service.Service;
+import ratpack.service.StartEvent;
+
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service that warms up the error rendering path when the application starts, so that the first
+ * errors handled by a freshly started server do not pay for serializer introspection, secure random
+ * seeding and interpretation of the rendering code.
+ */
+class ErrorWarmupService implements Service {
+    private static final Logger LOG = LoggerFactory.getLogger(ErrorWarmupService.class);
+
+    private final ErrorModule.Config config;
+    private final DefaultErrorHandler errorHandler;
+
+    @Inject
+    ErrorWarmupService(ErrorModule.Config config, DefaultErrorHandler errorHandler) {
+        this.config = config;
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public String getName() {
+        return "ratpack-error-warmup";
+    }
+
+    @Override
+    public void onStart(StartEvent event) throws Exception {
+        if (!config.isWarmup() || event.isReload()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        errorHandler.warmup(config.getWarmupIterations());
+
+        LOG.debug("Warmed up error rendering in {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
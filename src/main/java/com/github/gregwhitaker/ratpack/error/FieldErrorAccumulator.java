@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import ratpack.handling.Context;
+import ratpack.http.Request;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Request-scoped collector of field-level errors reported by parallel validation branches.
+ *
+ * Each branch, typically one promise of a {@link ratpack.exec.util.ParallelBatch}, obtains its own {@link Branch}
+ * and appends to it without synchronization. Branches are registered with a lock-free queue, and at the join the
+ * accumulated errors are materialized in branch order, and in insertion order within a branch, regardless of
+ * which branch finished first.
+ *
+ * <pre>
+ * FieldErrorAccumulator errors = FieldErrorAccumulator.of(context);
+ *
+ * ParallelBatch.of(
+ *         validateAddress(payload, errors.branch(0)),
+ *         validatePayment(payload, errors.branch(1))
+ * ).yield().then(results -&gt; {
+ *     if (errors.hasErrors()) {
+ *         throw errors.toException(InvalidOrderException::new);
+ *     }
+ *     ...
+ * });
+ * </pre>
+ */
+public final class FieldErrorAccumulator {
+    private static final Comparator<Branch> BRANCH_ORDER = Comparator.<Branch>comparingInt(branch -> branch.order)
+            .thenComparingInt(branch -> branch.sequence);
+
+    private final ConcurrentLinkedQueue<Branch> branches = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * Gets the accumulator for the current request, creating it if necessary.
+     *
+     * This must be called from the request's own execution, before forking parallel branches.
+     *
+     * @param context request context
+     * @return request-scoped field error accumulator
+     */
+    public static FieldErrorAccumulator of(Context context) {
+        Request request = context.getRequest();
+        return request.maybeGet(FieldErrorAccumulator.class).orElseGet(() -> {
+            FieldErrorAccumulator accumulator = new FieldErrorAccumulator();
+            request.add(FieldErrorAccumulator.class, accumulator);
+            return accumulator;
+        });
+    }
+
+    /**
+     * Creates a branch that errors can be appended to.
+     *
+     * A branch must only be used by a single execution at a time. Errors from branches with a lower order are
+     * materialized first; branches with the same order are materialized in the order they were created.
+     *
+     * @param order position of the branch's errors in the materialized field errors
+     * @return new branch
+     */
+    public Branch branch(int order) {
+        Branch branch = new Branch(order, sequence.getAndIncrement());
+        branches.offer(branch);
+        return branch;
+    }
+
+    /**
+     * Determines whether any branch has reported a field error. This must only be called once all
+     * branches have completed.
+     *
+     * @return <code>true</code> if there are field errors; otherwise <code>false</code>
+     */
+    public boolean hasErrors() {
+        for (Branch branch : branches) {
+            if (!branch.fieldErrors.isEmpty()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the field errors from all branches in deterministic order. This must only be called once all
+     * branches have completed.
+     *
+     * @return field errors
+     */
+    public List<BaseFieldException.FieldExceptionDetail> getFieldErrors() {
+        List<Branch> ordered = new ArrayList<>(branches);
+        if (ordered.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        ordered.sort(BRANCH_ORDER);
+
+        int size = 0;
+        for (Branch branch : ordered) {
+            size += branch.fieldErrors.size();
+        }
+
+        List<BaseFieldException.FieldExceptionDetail> fieldErrors = new ArrayList<>(size);
+        for (Branch branch : ordered) {
+            fieldErrors.addAll(branch.fieldErrors);
+        }
+
+        return fieldErrors;
+    }
+
+    /**
+     * Creates a field exception containing the field errors from all branches. This must only be called once
+     * all branches have completed.
+     *
+     * @param factory function that creates the exception from the field errors
+     * @param <T> type of field exception
+     * @return field exception
+     */
+    public <T extends BaseFieldException> T toException(Function<List<BaseFieldException.FieldExceptionDetail>, T> factory) {
+        return factory.apply(getFieldErrors());
+    }
+
+    /**
+     * Field errors reported by a single validation branch.
+     */
+    public static final class Branch {
+        private final int order;
+        private final int sequence;
+        private final List<BaseFieldException.FieldExceptionDetail> fieldErrors = new ArrayList<>();
+
+        private Branch(int order, int sequence) {
+            this.order = order;
+            this.sequence = sequence;
+        }
+
+        public Branch addField(String field, String fieldErrorMessage) {
+            fieldErrors.add(new BaseFieldException.FieldExceptionDetail(field, fieldErrorMessage));
+            return this;
+        }
+
+        public Branch addField(String field, String fieldErrorCode, String fieldErrorMessage) {
+            BaseFieldException.FieldExceptionDetail fieldExceptionDetail = new BaseFieldException.FieldExceptionDetail(field, fieldErrorMessage);
+            fieldExceptionDetail.setErrorCode(fieldErrorCode);
+
+            fieldErrors.add(fieldExceptionDetail);
+            return this;
+        }
+
+        public Branch addField(String field, String fieldErrorCode, String fieldErrorMessage, String fieldErrorDetail) {
+            BaseFieldException.FieldExceptionDetail fieldExceptionDetail = new BaseFieldException.FieldExceptionDetail(field, fieldErrorMessage);
+            fieldExceptionDetail.setErrorCode(fieldErrorCode);
+            fieldExceptionDetail.setErrorDetail(fieldErrorDetail);
+
+            fieldErrors.add(fieldExceptionDetail);
+            return this;
+        }
+
+        public Branch addField(String field, String fieldErrorCode, String fieldErrorMessage, String fieldErrorDetail, String fieldErrorDetailUrl) {
+            BaseFieldException.FieldExceptionDetail fieldExceptionDetail = new BaseFieldException.FieldExceptionDetail(field, fieldErrorMessage);
+            fieldExceptionDetail.setErrorCode(fieldErrorCode);
+            fieldExceptionDetail.setErrorDetail(fieldErrorDetail);
+            fieldExceptionDetail.setErrorDetailUrl(fieldErrorDetailUrl);
+
+            fieldErrors.add(fieldExceptionDetail);
+            return this;
+        }
+
+        public boolean hasErrors() {
+            return !fieldErrors.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+/**
+ * Format of the stack trace exposed in error responses when running in development mode.
+ */
+public enum StackTraceFormat {
+
+    /**
+     * Full stack trace rendered as a single string.
+     */
+    STRING,
+
+    /**
+     * Trimmed stack trace rendered as an object containing frames and causes.
+     */
+    STRUCTURED
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+/**
+ * Policy that determines when stack traces are exposed in error responses.
+ */
+public enum StackTracePolicy {
+
+    /**
+     * Expose stack traces only when running in development mode.
+     */
+    DEVELOPMENT,
+
+    /**
+     * Always expose stack traces.
+     */
+    ALWAYS,
+
+    /**
+     * Never expose stack traces.
+     */
+    NEVER
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders throwables as trimmed, structured stack traces.
+ *
+ * Consecutive frames from framework packages are collapsed into a single summary frame, frames
+ * shared with the enclosing throwable are elided from causes, and both the number of frames per
+ * throwable and the number of causes are bounded.
+ */
+final class StackTraceRenderer {
+    private final int maxFrames;
+    private final int maxCauses;
+    private final String[] collapsedPackages;
+
+    StackTraceRenderer(ErrorModule.Config config) {
+        this.maxFrames = Math.max(0, config.getMaxStackFrames());
+        this.maxCauses = Math.max(0, config.getMaxCauses());
+        this.collapsedPackages = config.getCollapsedPackages().toArray(new String[0]);
+    }
+
+    /**
+     * Renders the supplied throwable and its causes.
+     *
+     * @param throwable throwable to render
+     * @return structured stack trace
+     */
+    StackTrace render(Throwable throwable) {
+        StackTrace root = null;
+        StackTrace previous = null;
+        StackTraceElement[] enclosingFrames = new StackTraceElement[0];
+
+        int depth = 0;
+        Throwable current = throwable;
+        while (current != null && depth <= maxCauses) {
+            StackTraceElement[] frames = current.getStackTrace();
+            int framesInCommon = framesInCommon(frames, enclosingFrames);
+
+            StackTrace stackTrace = new StackTrace(current.getClass().getName(), current.getMessage());
+            stackTrace.setFrames(frames(frames, frames.length - framesInCommon));
+            if (framesInCommon > 0) {
+                stackTrace.setFramesInCommon(framesInCommon);
+            }
+
+            if (previous == null) {
+                root = stackTrace;
+            } else {
+                previous.setCause(stackTrace);
+            }
+
+            previous = stackTrace;
+            enclosingFrames = frames;
+
+            // Guard against circular cause chains
+            current = current.getCause() == current ? null : current.getCause();
+            depth++;
+        }
+
+        if (current != null && previous != null) {
+            previous.setOmittedCauses(countCauses(current));
+        }
+
+        return root;
+    }
+
+    private List<String> frames(StackTraceElement[] frames, int length) {
+        List<String> rendered = new ArrayList<>(Math.min(length, maxFrames + 1));
+
+        int i = 0;
+        while (i < length) {
+            if (rendered.size() >= maxFrames) {
+                rendered.add("... " + (length - i) + " more");
+                break;
+            }
+
+            String collapsedPackage = collapsedPackage(frames[i]);
+            if (collapsedPackage == null) {
+                rendered.add(frames[i].toString());
+                i++;
+                continue;
+            }
+
+            int run = 1;
+            while (i + run < length && collapsedPackage.equals(collapsedPackage(frames[i + run]))) {
+                run++;
+            }
+
+            if (run == 1) {
+                rendered.add(frames[i].toString());
+            } else {
+                rendered.add("... " + run + " " + trimDot(collapsedPackage) + " frames");
+            }
+
+            i += run;
+        }
+
+        return rendered;
+    }
+
+    private String collapsedPackage(StackTraceElement frame) {
+        String className = frame.getClassName();
+        for (String collapsedPackage : collapsedPackages) {
+            if (className.startsWith(collapsedPackage)) {
+                return collapsedPackage;
+            }
+        }
+
+        return null;
+    }
+
+    private static int framesInCommon(StackTraceElement[] frames, StackTraceElement[] enclosingFrames) {
+        int m = frames.length - 1;
+        int n = enclosingFrames.length - 1;
+        while (m >= 0 && n >= 0 && frames[m].equals(enclosingFrames[n])) {
+            m--;
+            n--;
+        }
+
+        return frames.length - 1 - m;
+    }
+
+    private static int countCauses(Throwable throwable) {
+        int count = 0;
+        Throwable current = throwable;
+        while (current != null && count < 1024) {
+            count++;
+            current = current.getCause() == current ? null : current.getCause();
+        }
+
+        return count;
+    }
+
+    private static String trimDot(String packageName) {
+        return packageName.endsWith(".") ? packageName.substring(0, packageName.length() - 1) : packageName;
+    }
+
+    /**
+     * Structured stack trace
+     */
+    @JsonPropertyOrder(value = {
+            "exception",
+            "message",
+            "frames",
+            "framesInCommon",
+            "cause",
+            "omittedCauses"
+    })
+    static class StackTrace implements Serializable {
+        private static final long serialVersionUID = -3419542209482470262L;
+
+        private String exception;
+        private String message;
+        private List<String> frames;
+        private Integer framesInCommon;
+        private StackTrace cause;
+        private Integer omittedCauses;
+
+        StackTrace(String exception, String message) {
+            this.exception = exception;
+            this.message = message;
+        }
+
+        public String getException() {
+            return exception;
+        }
+
+        public void setException(String exception) {
+            this.exception = exception;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        public List<String> getFrames() {
+            return frames;
+        }
+
+        public void setFrames(List<String> frames) {
+            this.frames = frames;
+        }
+
+        public Integer getFramesInCommon() {
+            return framesInCommon;
+        }
+
+        public void setFramesInCommon(Integer framesInCommon) {
+            this.framesInCommon = framesInCommon;
+        }
+
+        public StackTrace getCause() {
+            return cause;
+        }
+
+        public void setCause(StackTrace cause) {
+            this.cause = cause;
+        }
+
+        public Integer getOmittedCauses() {
+            return omittedCauses;
+        }
+
+        public void setOmittedCauses(Integer omittedCauses) {
+            this.omittedCauses = omittedCauses;
+        }
+    }
+}
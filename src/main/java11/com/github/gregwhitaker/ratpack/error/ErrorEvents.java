@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Greg Whitaker
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.gregwhitaker.ratpack.error;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emits Java Flight Recorder events for rendered error responses.
+ *
+ * This version is packaged under <code>META-INF/versions/11</code> of the multi-release jar and replaces the
+ * no-op implementation when running on Java 11 and later.
+ */
+final class ErrorEvents {
+    private static final EventType EVENT_TYPE = EventType.getEventType(ErrorEvent.class);
+
+    private ErrorEvents() {
+        // Noop
+    }
+
+    /**
+     * Determines whether error events are currently being recorded.
+     *
+     * @return <code>true</code> if error events are being recorded; otherwise <code>false</code>
+     */
+    static boolean isEnabled() {
+        return EVENT_TYPE.isEnabled();
+    }
+
+    /**
+     * Starts timing an error event. Only called when {@link #isEnabled()} returns <code>true</code>.
+     *
+     * @return started error event
+     */
+    static Object begin() {
+        ErrorEvent event = new ErrorEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends and records an error event.
+     *
+     * @param event error event returned by {@link #begin()}
+     * @param status HTTP status code
+     * @param errorCode error code
+     * @param throwable error being handled, or <code>null</code> if the error was raised by status code
+     * @param body rendered error response
+     */
+    static void commit(Object event, int status, String errorCode, Throwable throwable, String body) {
+        ErrorEvent errorEvent = (ErrorEvent) event;
+        errorEvent.end();
+
+        if (errorEvent.shouldCommit()) {
+            errorEvent.status = status;
+            errorEvent.errorCode = errorCode;
+            errorEvent.exceptionClass = throwable != null ? throwable.getClass() : null;
+            errorEvent.payloadLength = utf8Length(body);
+            errorEvent.commit();
+        }
+    }
+
+    /**
+     * Counts the bytes needed to encode the supplied text as UTF-8 without encoding it.
+     */
+    private static int utf8Length(String text) {
+        int length = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x800) {
+                length += 2;
+
+                // A surrogate pair encodes as four bytes
+                if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    i++;
+                }
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Error response event
+     */
+    @Name("com.github.gregwhitaker.ratpack.error.Error")
+    @Label("Error Response")
+    @Category({"Ratpack", "Errors"})
+    @Description("Error response rendered by the ratpack-error module; the duration covers handling of the error, including enrichment")
+    @StackTrace(false)
+    static class ErrorEvent extends Event {
+
+        @Label("Status")
+        int status;
+
+        @Label("Error Code")
+        String errorCode;
+
+        @Label("Exception Class")
+        Class<?> exceptionClass;
+
+        @Label("Payload Length")
+        @Description("Size of the rendered error response body")
+        @DataAmount
+        int payloadLength;
+    }
+}